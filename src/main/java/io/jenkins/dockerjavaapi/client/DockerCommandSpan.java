@@ -0,0 +1,135 @@
+package io.jenkins.dockerjavaapi.client;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record of a single docker command execution, as captured by
+ * {@link TracingDockerClient}.
+ */
+public final class DockerCommandSpan {
+
+    private final String command;
+    private final String daemon;
+    private final String target;
+    private final long startedAt;
+    private final long durationNanos;
+    private final long bytes;
+    private final String error;
+    private final boolean closed;
+
+    /**
+     * @param command       The name of the command, e.g. <code>InspectContainerCmd</code>.
+     * @param daemon        The daemon the command was sent to.
+     * @param target        The container or image ID the command acted upon, if any.
+     * @param startedAt     When the command started, in milliseconds since the epoch.
+     * @param durationNanos How long the command took, in nanoseconds.
+     * @param bytes         The number of bytes streamed, or -1 if not known.
+     * @param error         A description of the failure, or null if the command succeeded.
+     * @param closed        Whether the caller closed the stream before it completed.
+     */
+    public DockerCommandSpan(
+            @NonNull String command,
+            @CheckForNull String daemon,
+            @CheckForNull String target,
+            long startedAt,
+            long durationNanos,
+            long bytes,
+            @CheckForNull String error,
+            boolean closed) {
+        this.command = command;
+        this.daemon = daemon;
+        this.target = target;
+        this.startedAt = startedAt;
+        this.durationNanos = durationNanos;
+        this.bytes = bytes;
+        this.error = error;
+        this.closed = closed;
+    }
+
+    @NonNull
+    public String getCommand() {
+        return command;
+    }
+
+    @CheckForNull
+    public String getDaemon() {
+        return daemon;
+    }
+
+    @CheckForNull
+    public String getTarget() {
+        return target;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    @NonNull
+    public Date getStartedAtDate() {
+        return new Date(startedAt);
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+    }
+
+    /**
+     * Bytes are only counted for commands that stream {@link com.github.dockerjava.api.model.Frame}s
+     * (e.g. logs, attach, exec) or return an {@link java.io.InputStream} (e.g.
+     * save image, copy archive). Other streaming commands, such as pull, push,
+     * build, stats and events, deliver decoded objects and are reported as -1.
+     *
+     * @return The number of bytes streamed, or -1 if not counted for this command.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    @CheckForNull
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    /**
+     * Streams such as followed logs, attach and events usually run until the
+     * caller closes them; such a span ends when the caller closed the stream
+     * and is neither failed nor counted as slow.
+     *
+     * @return Whether the caller closed the stream before it completed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(command);
+        sb.append(" on ").append(daemon);
+        if (target != null) {
+            sb.append(" for ").append(target);
+        }
+        sb.append(" took ").append(getDurationMillis()).append("ms");
+        if (bytes >= 0) {
+            sb.append(", ").append(bytes).append(" bytes");
+        }
+        if (closed) {
+            sb.append(", closed by caller");
+        }
+        if (error != null) {
+            sb.append(", failed: ").append(error);
+        }
+        return sb.toString();
+    }
+}
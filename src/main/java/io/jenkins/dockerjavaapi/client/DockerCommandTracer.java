@@ -0,0 +1,139 @@
+package io.jenkins.dockerjavaapi.client;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+
+/**
+ * Holds the {@link DockerCommandSpan}s recorded by all
+ * {@link TracingDockerClient}s in this JVM.
+ * <p>
+ * Two bounded logs are kept: the most recent commands, and the most recent
+ * commands that took longer than the slow-command threshold. Tracing is off
+ * unless enabled via the <code>io.jenkins.dockerjavaapi.client.DockerCommandTracer.enabled</code>
+ * system property or from the "Docker Command Tracing" management page.
+ */
+public final class DockerCommandTracer {
+    private static final Logger LOGGER = Logger.getLogger(DockerCommandTracer.class.getName());
+
+    private static final String PROPERTY_PREFIX = DockerCommandTracer.class.getName();
+
+    private static final DockerCommandTracer INSTANCE = new DockerCommandTracer(
+            SystemProperties.getBoolean(PROPERTY_PREFIX + ".enabled"),
+            SystemProperties.getInteger(PROPERTY_PREFIX + ".capacity", 200),
+            SystemProperties.getInteger(PROPERTY_PREFIX + ".slowCapacity", 100),
+            SystemProperties.getLong(PROPERTY_PREFIX + ".slowThresholdMillis", 5000L));
+
+    private volatile boolean enabled;
+    private final long slowThresholdMillis;
+    private final SpanRing recent;
+    private final SpanRing slow;
+
+    DockerCommandTracer(boolean enabled, int capacity, int slowCapacity, long slowThresholdMillis) {
+        this.enabled = enabled;
+        this.slowThresholdMillis = slowThresholdMillis;
+        this.recent = new SpanRing(capacity);
+        this.slow = new SpanRing(slowCapacity);
+    }
+
+    /**
+     * @return The tracer shared by all {@link TracingDockerClient}s.
+     */
+    @NonNull
+    public static DockerCommandTracer get() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getSlowThresholdMillis() {
+        return slowThresholdMillis;
+    }
+
+    /**
+     * Records a completed command. Streams closed by the caller are not
+     * counted as slow, however long they ran.
+     *
+     * @param span The command that completed.
+     */
+    public void record(@NonNull DockerCommandSpan span) {
+        recent.add(span);
+        if (!span.isClosed() && span.getDurationMillis() >= slowThresholdMillis) {
+            slow.add(span);
+            LOGGER.log(Level.INFO, "Slow docker command: {0}", span);
+        }
+    }
+
+    /**
+     * @return The most recently recorded commands, newest first.
+     */
+    @NonNull
+    public List<DockerCommandSpan> getRecentSpans() {
+        return recent.snapshot();
+    }
+
+    /**
+     * @return The most recently recorded commands that exceeded the slow-command
+     *         threshold, newest first.
+     */
+    @NonNull
+    public List<DockerCommandSpan> getSlowSpans() {
+        return slow.snapshot();
+    }
+
+    /**
+     * Forgets all recorded commands.
+     */
+    public void clear() {
+        recent.clear();
+        slow.clear();
+    }
+
+    /**
+     * Fixed-size ring of spans that overwrites the oldest entry when full.
+     */
+    private static final class SpanRing {
+        private final DockerCommandSpan[] spans;
+        private int next;
+        private int size;
+
+        SpanRing(int capacity) {
+            this.spans = new DockerCommandSpan[Math.max(capacity, 0)];
+        }
+
+        synchronized void add(DockerCommandSpan span) {
+            if (spans.length == 0) {
+                return;
+            }
+            spans[next] = span;
+            next = (next + 1) % spans.length;
+            if (size < spans.length) {
+                size++;
+            }
+        }
+
+        synchronized List<DockerCommandSpan> snapshot() {
+            final List<DockerCommandSpan> result = new ArrayList<>(size);
+            for (int i = 1; i <= size; i++) {
+                result.add(spans[(next - i + spans.length) % spans.length]);
+            }
+            return result;
+        }
+
+        synchronized void clear() {
+            Arrays.fill(spans, null);
+            next = 0;
+            size = 0;
+        }
+    }
+}
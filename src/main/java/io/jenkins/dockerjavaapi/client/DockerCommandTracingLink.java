@@ -0,0 +1,67 @@
+package io.jenkins.dockerjavaapi.client;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+/**
+ * Management page showing the commands recorded by {@link TracingDockerClient}s.
+ */
+@Extension
+public class DockerCommandTracingLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-analytics";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Docker Command Tracing";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Recent and slow docker daemon calls made through the Docker API plugin.";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "dockerCommandTracing";
+    }
+
+    @NonNull
+    @Override
+    public Category getCategory() {
+        return Category.TROUBLESHOOTING;
+    }
+
+    public DockerCommandTracer getTracer() {
+        return DockerCommandTracer.get();
+    }
+
+    @RequirePOST
+    public HttpResponse doEnable() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        getTracer().setEnabled(true);
+        return HttpResponses.redirectToDot();
+    }
+
+    @RequirePOST
+    public HttpResponse doDisable() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        getTracer().setEnabled(false);
+        return HttpResponses.redirectToDot();
+    }
+
+    @RequirePOST
+    public HttpResponse doClear() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        getTracer().clear();
+        return HttpResponses.redirectToDot();
+    }
+}
@@ -0,0 +1,370 @@
+package io.jenkins.dockerjavaapi.client;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.AsyncDockerCmd;
+import com.github.dockerjava.api.command.DockerCmd;
+import com.github.dockerjava.api.command.SyncDockerCmd;
+import com.github.dockerjava.api.model.Frame;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link DelegatingDockerClient} that records a {@link DockerCommandSpan} for
+ * every command it executes.
+ * <p>
+ * Commands returned by this client are wrapped so that their
+ * <code>exec</code> method (and <code>start</code>, which calls it) is timed;
+ * for streaming commands the span ends when the stream completes (or is
+ * closed). Bytes are only counted for commands that stream {@link Frame}s
+ * (logs, attach, exec) or return an {@link InputStream}. Spans are handed to a
+ * {@link DockerCommandTracer}. When tracing is disabled, commands are returned
+ * unwrapped and cost nothing extra.
+ */
+public class TracingDockerClient extends DelegatingDockerClient {
+    private static final Logger LOGGER = Logger.getLogger(TracingDockerClient.class.getName());
+
+    private static final ClassValue<CommandType> COMMAND_TYPES = new ClassValue<>() {
+        @Override
+        protected CommandType computeValue(Class<?> type) {
+            return new CommandType(type);
+        }
+    };
+
+    private final String daemon;
+    private final DockerCommandTracer tracer;
+
+    /**
+     * Constructs a new instance that delegates all API calls to the specified
+     * {@link DockerClient} and records them with the shared
+     * {@link DockerCommandTracer}.
+     *
+     * @param delegate The {@link DockerClient} to delegate to.
+     * @param daemon   Describes the daemon the delegate talks to, e.g. its
+     *                 docker host URI. Included in every span.
+     */
+    public TracingDockerClient(@NonNull DockerClient delegate, @CheckForNull String daemon) {
+        this(delegate, daemon, DockerCommandTracer.get());
+    }
+
+    TracingDockerClient(@NonNull DockerClient delegate, @CheckForNull String daemon, DockerCommandTracer tracer) {
+        super(delegate);
+        this.daemon = daemon;
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected <T> T interceptAnswer(T originalAnswer) {
+        if (!tracer.isEnabled() || !(originalAnswer instanceof DockerCmd)) {
+            return super.interceptAnswer(originalAnswer);
+        }
+        final CommandType type = COMMAND_TYPES.get(originalAnswer.getClass());
+        if (type.interfaces.length == 0) {
+            return super.interceptAnswer(originalAnswer);
+        }
+        try {
+            @SuppressWarnings("unchecked")
+            final T proxy = (T) Proxy.newProxyInstance(
+                    type.interfaces[0].getClassLoader(), type.interfaces, new TracingHandler(originalAnswer, type));
+            return super.interceptAnswer(proxy);
+        } catch (IllegalArgumentException ex) {
+            LOGGER.log(Level.FINE, "Unable to trace " + type.name, ex);
+            return super.interceptAnswer(originalAnswer);
+        }
+    }
+
+    /**
+     * What we need to know about each implementation of {@link DockerCmd}.
+     */
+    private static final class CommandType {
+        final Class<?>[] interfaces;
+        final String name;
+        final Method targetIdGetter;
+
+        CommandType(Class<?> type) {
+            final Set<Class<?>> found = new LinkedHashSet<>();
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                final Deque<Class<?>> toVisit = new ArrayDeque<>(Arrays.asList(c.getInterfaces()));
+                while (!toVisit.isEmpty()) {
+                    final Class<?> i = toVisit.remove();
+                    if (DockerCmd.class.isAssignableFrom(i) && Modifier.isPublic(i.getModifiers()) && found.add(i)) {
+                        toVisit.addAll(Arrays.asList(i.getInterfaces()));
+                    }
+                }
+            }
+            this.interfaces = found.toArray(new Class<?>[0]);
+            String commandName = type.getSimpleName();
+            for (Class<?> i : interfaces) {
+                if (i != DockerCmd.class && i != SyncDockerCmd.class && i != AsyncDockerCmd.class) {
+                    commandName = i.getSimpleName();
+                    break;
+                }
+            }
+            this.name = commandName;
+            this.targetIdGetter = findTargetIdGetter(interfaces);
+        }
+
+        private static Method findTargetIdGetter(Class<?>[] interfaces) {
+            for (String getterName : new String[] {"getContainerId", "getImageId"}) {
+                for (Class<?> i : interfaces) {
+                    try {
+                        return i.getMethod(getterName);
+                    } catch (NoSuchMethodException ignored) {
+                        // try the next one
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Passes every call through to the real command, timing calls to
+     * <code>exec</code> and returning the proxy wherever the command would
+     * have returned itself so that fluent calls remain traced.
+     * <p>
+     * The default <code>start()</code> method of async commands is run against
+     * the proxy rather than the real command, so that the <code>exec</code>
+     * it calls is traced too.
+     */
+    private final class TracingHandler implements InvocationHandler {
+        private final Object target;
+        private final CommandType type;
+
+        TracingHandler(Object target, CommandType type) {
+            this.target = target;
+            this.type = type;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class && method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            if (method.isDefault() && method.getName().equals("start") && method.getParameterCount() == 0) {
+                return InvocationHandler.invokeDefault(proxy, method, args);
+            }
+            if (!method.getName().equals("exec")) {
+                final Object result = invokeTarget(method, args);
+                return result == target ? proxy : result;
+            }
+            final PendingSpan span = new PendingSpan(type.name, targetId());
+            if (args != null && args.length == 1 && args[0] instanceof ResultCallback) {
+                return execAsync(method, args, span);
+            }
+            return execSync(method, args, span);
+        }
+
+        private Object execSync(Method method, Object[] args, PendingSpan span) throws Throwable {
+            final Object result;
+            try {
+                result = invokeTarget(method, args);
+            } catch (Throwable ex) {
+                span.finish(-1L, ex);
+                throw ex;
+            }
+            if (result instanceof InputStream) {
+                return new CountingInputStream((InputStream) result, span);
+            }
+            span.finish(-1L, null);
+            return result;
+        }
+
+        private Object execAsync(Method method, Object[] args, PendingSpan span) throws Throwable {
+            @SuppressWarnings("unchecked")
+            final ResultCallback<Object> callback = (ResultCallback<Object>) args[0];
+            try {
+                invokeTarget(method, new Object[] {new TracingResultCallback(callback, span)});
+            } catch (Throwable ex) {
+                span.finish(-1L, ex);
+                throw ex;
+            }
+            // the caller expects to get back the callback they passed in
+            return callback;
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        private String targetId() {
+            if (type.targetIdGetter == null) {
+                return null;
+            }
+            try {
+                final Object id = type.targetIdGetter.invoke(target);
+                return id == null ? null : id.toString();
+            } catch (ReflectiveOperationException | RuntimeException ex) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * A command execution that has started but not yet been recorded.
+     */
+    private final class PendingSpan {
+        private final String command;
+        private final String target;
+        private final long startedAt = System.currentTimeMillis();
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        PendingSpan(String command, String target) {
+            this.command = command;
+            this.target = target;
+        }
+
+        void finish(long bytes, @CheckForNull Throwable error) {
+            finish(bytes, error, false);
+        }
+
+        void closedByCaller(long bytes) {
+            finish(bytes, null, true);
+        }
+
+        private void finish(long bytes, @CheckForNull Throwable error, boolean closed) {
+            if (finished.compareAndSet(false, true)) {
+                final long duration = System.nanoTime() - startNanos;
+                tracer.record(new DockerCommandSpan(
+                        command,
+                        daemon,
+                        target,
+                        startedAt,
+                        duration,
+                        bytes,
+                        error == null ? null : error.toString(),
+                        closed));
+            }
+        }
+    }
+
+    /**
+     * Passes everything through to the caller's callback, counting the bytes
+     * streamed and ending the span when the stream ends.
+     * <p>
+     * The caller's callback is given a wrapped {@link Closeable}, so that a
+     * stream the caller closes ends the span as closed; the error docker-java
+     * reports for the aborted stream afterwards is then ignored.
+     */
+    private static final class TracingResultCallback implements ResultCallback<Object> {
+        private final ResultCallback<Object> delegate;
+        private final PendingSpan span;
+        private final AtomicLong bytes = new AtomicLong(-1L);
+
+        TracingResultCallback(ResultCallback<Object> delegate, PendingSpan span) {
+            this.delegate = delegate;
+            this.span = span;
+        }
+
+        @Override
+        public void onStart(Closeable closeable) {
+            if (closeable == null) {
+                delegate.onStart(null);
+                return;
+            }
+            delegate.onStart(() -> {
+                span.closedByCaller(bytes.get());
+                closeable.close();
+            });
+        }
+
+        @Override
+        public void onNext(Object object) {
+            if (object instanceof Frame) {
+                final byte[] payload = ((Frame) object).getPayload();
+                final int length = payload == null ? 0 : payload.length;
+                bytes.accumulateAndGet(length, (current, add) -> Math.max(current, 0L) + add);
+            }
+            delegate.onNext(object);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            span.finish(bytes.get(), throwable);
+            delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            span.finish(bytes.get(), null);
+            delegate.onComplete();
+        }
+
+        @Override
+        public void close() throws IOException {
+            span.finish(bytes.get(), null);
+            delegate.close();
+        }
+    }
+
+    /**
+     * Counts the bytes read from a streamed response, ending the span when the
+     * stream is closed.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final PendingSpan span;
+        private long bytes;
+
+        CountingInputStream(InputStream in, PendingSpan span) {
+            super(in);
+            this.span = span;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int n = super.read(b, off, len);
+            if (n > 0) {
+                bytes += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = super.skip(n);
+            bytes += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                span.finish(bytes, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.jenkins.dockerjavaapi.json;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dockerjava.core.DockerClientConfig;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Registers Jackson modules on the <code>ObjectMapper</code> that docker-java
+ * uses to decode responses.
+ * <p>
+ * docker-java decodes every response with the mapper given by
+ * {@link DockerClientConfig#getObjectMapper()}. Wrapping the config passed to
+ * <code>DockerClientImpl.getInstance</code> with
+ * {@link #withModules(DockerClientConfig, Module...)} makes every client built
+ * from it use a mapper with the given modules, e.g. a
+ * {@link SelectiveDecodingModule}:
+ *
+ * <pre>
+ * DockerClientConfig config = ObjectMapperModules.withModules(
+ *         DefaultDockerClientConfig.createDefaultConfigBuilder().build(),
+ *         new SelectiveDecodingModule().decode(Container.class, "Id", "Labels", "State"));
+ * DockerClient client = DockerClientImpl.getInstance(config, httpClient);
+ * </pre>
+ */
+public final class ObjectMapperModules {
+
+    private ObjectMapperModules() {}
+
+    /**
+     * Wraps a {@link DockerClientConfig} so that its
+     * {@link DockerClientConfig#getObjectMapper()} returns a copy of the
+     * original mapper with the given modules registered. The copy is made once
+     * and otherwise left as configured; everything else is passed through to
+     * the original config.
+     *
+     * @param config  The config to wrap.
+     * @param modules The Jackson modules to register.
+     * @return A config that uses the customized mapper.
+     */
+    @NonNull
+    public static DockerClientConfig withModules(@NonNull DockerClientConfig config, @NonNull Module... modules) {
+        final ObjectMapper mapper = config.getObjectMapper().copy();
+        mapper.registerModules(modules);
+        return (DockerClientConfig) Proxy.newProxyInstance(
+                DockerClientConfig.class.getClassLoader(),
+                new Class<?>[] {DockerClientConfig.class},
+                new ObjectMapperOverride(config, mapper));
+    }
+
+    private static final class ObjectMapperOverride implements InvocationHandler {
+        private final DockerClientConfig config;
+        private final ObjectMapper mapper;
+
+        ObjectMapperOverride(DockerClientConfig config, ObjectMapper mapper) {
+            this.config = config;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("getObjectMapper") && method.getParameterCount() == 0) {
+                return mapper;
+            }
+            if (method.getDeclaringClass() == Object.class && method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            try {
+                return method.invoke(config, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package io.jenkins.dockerjavaapi.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.PropertyName;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBase;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBuilder;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.CreatorProperty;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.fasterxml.jackson.databind.deser.SettableBeanProperty;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.NopAnnotationIntrospector;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Jackson module that makes selected docker-java model classes decode only
+ * the JSON properties that are asked for.
+ * <p>
+ * All other properties of those classes are marked as ignorable, so the
+ * parser skips over their values instead of binding them to objects, and they
+ * are left as <code>null</code>. This suits callers of e.g.
+ * <code>listContainersCmd</code> or <code>inspectContainerCmd</code> that only
+ * use a few fields of each result; see <code>SelectiveDecodingBenchmark</code>
+ * in this plugin's tests for how it compares with full decoding.
+ * <p>
+ * docker-java's own mapper decodes every model object twice more to keep its
+ * raw JSON values (see <code>DockerObject#getRawValues()</code>). The selected
+ * classes are decoded directly instead, so their raw values are empty.
+ * <p>
+ * For example, to only decode the ID, names, labels and state of each
+ * {@link com.github.dockerjava.api.model.Container}:
+ *
+ * <pre>
+ * new SelectiveDecodingModule().decode(Container.class, "Id", "Names", "Labels", "State")
+ * </pre>
+ *
+ * All calls to {@link #decode(Class, String...)} must be made before the
+ * module is registered with an <code>ObjectMapper</code>. Several instances
+ * can be registered with the same mapper.
+ */
+public class SelectiveDecodingModule extends SimpleModule {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * docker-java wraps the deserializer of every model class in one of these;
+     * it re-decodes the value with a mapper that does not have this module.
+     */
+    private static final String DOCKER_OBJECT_DESERIALIZER = "com.github.dockerjava.core.DockerObjectDeserializer";
+
+    private final ConcurrentHashMap<Class<?>, Set<String>> wanted = new ConcurrentHashMap<>();
+    private volatile boolean registered;
+
+    public SelectiveDecodingModule() {
+        super(SelectiveDecodingModule.class.getSimpleName());
+        setDeserializerModifier(new PropertyFilter(wanted));
+    }
+
+    /**
+     * Restricts the decoding of a model class to the given properties.
+     *
+     * @param type           The docker-java model class, e.g.
+     *                       {@link com.github.dockerjava.api.model.Container}.
+     * @param jsonProperties The JSON names of the properties to decode, e.g.
+     *                       <code>"Id"</code>.
+     * @return this module.
+     * @throws IllegalStateException if this module has already been registered
+     *                               with an <code>ObjectMapper</code>.
+     */
+    @NonNull
+    public SelectiveDecodingModule decode(@NonNull Class<?> type, @NonNull String... jsonProperties) {
+        if (registered) {
+            throw new IllegalStateException(
+                    "decode(" + type.getName() + ", ...) called after the module was registered");
+        }
+        wanted.put(type, Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(jsonProperties))));
+        return this;
+    }
+
+    /**
+     * @return an ID unique to this instance, so that registering several
+     *         instances with one mapper does not skip all but the first.
+     */
+    @Override
+    public Object getTypeId() {
+        return this;
+    }
+
+    @Override
+    public void setupModule(SetupContext context) {
+        registered = true;
+        super.setupModule(context);
+        context.insertAnnotationIntrospector(new SelectedTypes(wanted));
+    }
+
+    /**
+     * Gives every selected class a {@link SelectiveBeanDeserializer}. A
+     * deserializer found this way is used as is, whereas one built by the
+     * deserializer factory would be wrapped by docker-java.
+     */
+    private static final class SelectedTypes extends NopAnnotationIntrospector {
+        private static final long serialVersionUID = 1L;
+
+        private final ConcurrentHashMap<Class<?>, Set<String>> wanted;
+
+        SelectedTypes(ConcurrentHashMap<Class<?>, Set<String>> wanted) {
+            this.wanted = wanted;
+        }
+
+        @Override
+        public Object findDeserializer(Annotated am) {
+            if (am instanceof AnnotatedClass && wanted.containsKey(am.getRawType())) {
+                return new SelectiveBeanDeserializer(am.getType(), null);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Decodes a selected class with the ordinary bean deserializer (filtered by
+     * {@link PropertyFilter}), without docker-java's wrapper.
+     */
+    private static final class SelectiveBeanDeserializer extends StdDeserializer<Object>
+            implements ResolvableDeserializer, ContextualDeserializer {
+        private static final long serialVersionUID = 1L;
+
+        @SuppressFBWarnings(value = "SE_BAD_FIELD", justification = "Deserializers are not serialized")
+        private JsonDeserializer<Object> delegate;
+
+        SelectiveBeanDeserializer(JavaType type, JsonDeserializer<Object> delegate) {
+            super(type);
+            this.delegate = delegate;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+            delegate = (JsonDeserializer<Object>) beanDeserializer(ctxt, getValueType());
+        }
+
+        /**
+         * Builds and resolves the bean deserializer for the given type without
+         * docker-java's wrapper. Non-static inner classes (e.g. the
+         * <code>State</code> of an inspect response) are given the same
+         * treatment, as Jackson can only construct them from their outer
+         * object's bean deserializer.
+         */
+        private static JsonDeserializer<?> beanDeserializer(DeserializationContext ctxt, JavaType type)
+                throws JsonMappingException {
+            JsonDeserializer<?> deserializer = ctxt.getFactory()
+                    .createBeanDeserializer(ctxt, type, ctxt.getConfig().introspect(type));
+            if (deserializer instanceof DelegatingDeserializer
+                    && deserializer.getClass().getName().equals(DOCKER_OBJECT_DESERIALIZER)) {
+                deserializer = ((DelegatingDeserializer) deserializer).getDelegatee();
+            }
+            if (deserializer instanceof BeanDeserializerBase) {
+                final BeanDeserializerBase bean = (BeanDeserializerBase) deserializer;
+                final List<SettableBeanProperty> properties = new ArrayList<>();
+                bean.properties().forEachRemaining(properties::add);
+                for (SettableBeanProperty property : properties) {
+                    if (!property.hasValueDeserializer() && isInnerClassOf(property.getType(), type)) {
+                        bean.replaceProperty(
+                                property, property.withValueDeserializer(beanDeserializer(ctxt, property.getType())));
+                    }
+                }
+            }
+            if (deserializer instanceof ResolvableDeserializer) {
+                ((ResolvableDeserializer) deserializer).resolve(ctxt);
+            }
+            return deserializer;
+        }
+
+        private static boolean isInnerClassOf(JavaType inner, JavaType outer) {
+            final Class<?> raw = inner.getRawClass();
+            return raw.getEnclosingClass() == outer.getRawClass() && !Modifier.isStatic(raw.getModifiers());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public JsonDeserializer<?> createContextual(DeserializationContext ctxt, BeanProperty property)
+                throws JsonMappingException {
+            final JsonDeserializer<Object> contextual = (JsonDeserializer<Object>)
+                    ctxt.handleSecondaryContextualization(delegate, property, getValueType());
+            return contextual == delegate ? this : new SelectiveBeanDeserializer(getValueType(), contextual);
+        }
+
+        @Override
+        public Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return delegate.deserialize(p, ctxt);
+        }
+
+        @Override
+        public Object deserialize(JsonParser p, DeserializationContext ctxt, Object intoValue) throws IOException {
+            return delegate.deserialize(p, ctxt, intoValue);
+        }
+
+        @Override
+        public Object deserializeWithType(JsonParser p, DeserializationContext ctxt, TypeDeserializer typeDeserializer)
+                throws IOException {
+            return delegate.deserializeWithType(p, ctxt, typeDeserializer);
+        }
+    }
+
+    /**
+     * Replaces every property that was not asked for with an ignorable one, so
+     * that Jackson skips over its value whatever the mapper's
+     * <code>FAIL_ON_UNKNOWN_PROPERTIES</code> setting.
+     */
+    private static final class PropertyFilter extends BeanDeserializerModifier {
+        private static final long serialVersionUID = 1L;
+
+        private final ConcurrentHashMap<Class<?>, Set<String>> wanted;
+
+        PropertyFilter(ConcurrentHashMap<Class<?>, Set<String>> wanted) {
+            this.wanted = wanted;
+        }
+
+        @Override
+        public BeanDeserializerBuilder updateBuilder(
+                DeserializationConfig config, BeanDescription beanDesc, BeanDeserializerBuilder builder) {
+            final Set<String> keep = wanted.get(beanDesc.getBeanClass());
+            if (keep == null) {
+                return builder;
+            }
+            final List<String> unwanted = new ArrayList<>();
+            for (Iterator<SettableBeanProperty> it = builder.getProperties(); it.hasNext(); ) {
+                final SettableBeanProperty property = it.next();
+                if (!keep.contains(property.getName()) && !(property instanceof CreatorProperty)) {
+                    unwanted.add(property.getName());
+                }
+            }
+            for (String name : unwanted) {
+                builder.removeProperty(PropertyName.construct(name));
+                builder.addIgnorable(name);
+            }
+            return builder;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package io.jenkins.dockerjavaapi.transport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The file format written by {@link RecordingDockerHttpClient} and read by
+ * {@link ReplayingDockerHttpClient}.
+ * <p>
+ * A file starts with {@link #MAGIC} and {@link #VERSION}, followed by a
+ * sequence of records. Only the method and path of each request are kept, so
+ * that registry credentials sent in request headers and bodies never reach the
+ * file. Every record starts with a tag byte, the ID of the
+ * exchange it belongs to and the time, in nanoseconds since recording
+ * started, at which it happened. Exchanges can overlap, so records of
+ * different exchanges can be interleaved. Records for an exchange that
+ * come after its {@link #END} are ignored.
+ */
+final class DockerTrafficFile {
+    static final int MAGIC = 0x444a5452; // "DJTR"
+    static final int VERSION = 2;
+
+    /** method, path. */
+    static final byte REQUEST = 1;
+    /** status code, response headers. */
+    static final byte RESPONSE = 2;
+    /** a piece of the response body. */
+    static final byte BODY = 3;
+    /** the response was closed. */
+    static final byte END = 4;
+    /** the request failed with an exception. */
+    static final byte FAILURE = 5;
+
+    private DockerTrafficFile() {}
+
+    /**
+     * One request and the response to it, as read back from a file.
+     */
+    static final class Exchange {
+        final long startedAt;
+        final String method;
+        final String path;
+        long respondedAt;
+        int statusCode;
+        final Map<String, List<String>> responseHeaders = new LinkedHashMap<>();
+        final List<Chunk> body = new ArrayList<>();
+        String failure;
+
+        Exchange(long startedAt, String method, String path) {
+            this.startedAt = startedAt;
+            this.method = method;
+            this.path = path;
+        }
+    }
+
+    /**
+     * A piece of response body and when it arrived.
+     */
+    static final class Chunk {
+        final long arrivedAt;
+        final byte[] data;
+
+        Chunk(long arrivedAt, byte[] data) {
+            this.arrivedAt = arrivedAt;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Appends records to a file. All methods are thread-safe, and do nothing
+     * once the writer has been closed.
+     */
+    static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final long origin = System.nanoTime();
+        private boolean closed;
+
+        /**
+         * @param out Where to write the file. Closed if the header cannot be
+         *            written.
+         */
+        Writer(OutputStream out) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(out));
+            try {
+                this.out.writeInt(MAGIC);
+                this.out.writeInt(VERSION);
+                this.out.flush();
+            } catch (IOException ex) {
+                try {
+                    out.close();
+                } catch (IOException suppressed) {
+                    ex.addSuppressed(suppressed);
+                }
+                throw ex;
+            }
+        }
+
+        synchronized void request(int id, String method, String path) throws IOException {
+            if (closed) {
+                return;
+            }
+            start(REQUEST, id);
+            writeString(method);
+            writeString(path);
+        }
+
+        synchronized void response(int id, int statusCode, Map<String, List<String>> headers) throws IOException {
+            if (closed) {
+                return;
+            }
+            start(RESPONSE, id);
+            out.writeInt(statusCode);
+            out.writeInt(headers.size());
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                writeString(header.getKey());
+                out.writeInt(header.getValue().size());
+                for (String value : header.getValue()) {
+                    writeString(value);
+                }
+            }
+        }
+
+        /**
+         * @param arrivedAt When the data arrived, from {@link System#nanoTime()}.
+         */
+        synchronized void body(int id, long arrivedAt, byte[] data, int offset, int length) throws IOException {
+            if (closed) {
+                return;
+            }
+            start(BODY, id, arrivedAt);
+            writeBytes(data, offset, length);
+        }
+
+        synchronized void end(int id) throws IOException {
+            if (closed) {
+                return;
+            }
+            start(END, id);
+            out.flush();
+        }
+
+        synchronized void failure(int id, String message) throws IOException {
+            if (closed) {
+                return;
+            }
+            start(FAILURE, id);
+            writeString(message);
+            out.flush();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                out.close();
+            }
+        }
+
+        private void start(byte tag, int id) throws IOException {
+            start(tag, id, System.nanoTime());
+        }
+
+        private void start(byte tag, int id, long at) throws IOException {
+            out.writeByte(tag);
+            out.writeInt(id);
+            out.writeLong(at - origin);
+        }
+
+        private void writeString(String value) throws IOException {
+            final byte[] bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+            writeBytes(bytes, 0, bytes == null ? -1 : bytes.length);
+        }
+
+        private void writeBytes(byte[] data, int offset, int length) throws IOException {
+            out.writeInt(length);
+            if (length > 0) {
+                out.write(data, offset, length);
+            }
+        }
+    }
+
+    /**
+     * Reads every exchange in a file.
+     *
+     * @param in The file contents.
+     * @return The exchanges, in the order their requests were made.
+     * @throws IOException if the file could not be read or is not in this
+     *                     format.
+     */
+    static List<Exchange> read(InputStream in) throws IOException {
+        final DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a docker traffic recording");
+        }
+        final int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported docker traffic recording version " + version);
+        }
+        final List<Exchange> exchanges = new ArrayList<>();
+        final Map<Integer, Exchange> byId = new LinkedHashMap<>();
+        final Set<Integer> ended = new HashSet<>();
+        while (true) {
+            final int tag = data.read();
+            if (tag < 0) {
+                return exchanges;
+            }
+            final int id = data.readInt();
+            final long at = data.readLong();
+            if (tag == REQUEST) {
+                final String method = readString(data);
+                final String path = readString(data);
+                final Exchange exchange = new Exchange(at, method, path);
+                exchanges.add(exchange);
+                byId.put(id, exchange);
+                continue;
+            }
+            Exchange exchange = byId.get(id);
+            if (exchange == null) {
+                if (!ended.contains(id)) {
+                    throw new IOException("Record for unknown exchange " + id);
+                }
+                // e.g. a response closed twice; read the record and discard it
+                exchange = new Exchange(at, null, null);
+            }
+            switch (tag) {
+                case RESPONSE:
+                    exchange.respondedAt = at;
+                    exchange.statusCode = data.readInt();
+                    final int headerCount = data.readInt();
+                    for (int i = 0; i < headerCount; i++) {
+                        final String name = readString(data);
+                        final int valueCount = data.readInt();
+                        final List<String> values = new ArrayList<>(valueCount);
+                        for (int v = 0; v < valueCount; v++) {
+                            values.add(readString(data));
+                        }
+                        exchange.responseHeaders.put(name, values);
+                    }
+                    break;
+                case BODY:
+                    exchange.body.add(new Chunk(at, readBytes(data)));
+                    break;
+                case END:
+                    byId.remove(id);
+                    ended.add(id);
+                    break;
+                case FAILURE:
+                    exchange.respondedAt = at;
+                    exchange.failure = readString(data);
+                    byId.remove(id);
+                    ended.add(id);
+                    break;
+                default:
+                    throw new IOException("Unknown record type " + tag);
+            }
+        }
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        final int length = data.readInt();
+        return length < 0 ? null : new String(readBytes(data, length), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(DataInputStream data) throws IOException {
+        return readBytes(data, Math.max(data.readInt(), 0));
+    }
+
+    private static byte[] readBytes(DataInputStream data, int length) throws IOException {
+        final byte[] bytes = new byte[length];
+        try {
+            data.readFully(bytes);
+        } catch (EOFException ex) {
+            throw new IOException("Truncated docker traffic recording", ex);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,245 @@
+package io.jenkins.dockerjavaapi.transport;
+
+import com.github.dockerjava.transport.DockerHttpClient;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link DockerHttpClient} that passes every request through to another
+ * {@link DockerHttpClient} and records the requests, the responses and the
+ * time at which each piece of each response body was read, so that the
+ * traffic can be played back later by a {@link ReplayingDockerHttpClient}.
+ * <p>
+ * Only the method and path of each request are recorded. Request headers and
+ * bodies, which carry registry credentials (e.g. <code>X-Registry-Auth</code>
+ * and the body of <code>POST /auth</code>), are passed through but never
+ * written. Response headers and bodies are recorded as received, so a
+ * recording can still contain secrets such as the environment variables of an
+ * inspected container.
+ */
+public class RecordingDockerHttpClient implements DockerHttpClient {
+    private static final Logger LOGGER = Logger.getLogger(RecordingDockerHttpClient.class.getName());
+
+    private static final int BATCH_SIZE = 8192;
+    private static final long BATCH_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final DockerHttpClient delegate;
+    private final DockerTrafficFile.Writer writer;
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * Constructs a new instance that records all traffic to the given file.
+     *
+     * @param delegate  The {@link DockerHttpClient} to delegate to.
+     * @param recording Where to write the recording. Any existing file is
+     *                  overwritten.
+     * @throws IOException if the file could not be written.
+     */
+    public RecordingDockerHttpClient(@NonNull DockerHttpClient delegate, @NonNull Path recording) throws IOException {
+        this(delegate, Files.newOutputStream(recording));
+    }
+
+    /**
+     * Constructs a new instance that records all traffic to the given stream,
+     * closing it when this client is closed (or if this constructor fails).
+     *
+     * @param delegate  The {@link DockerHttpClient} to delegate to.
+     * @param recording Where to write the recording.
+     * @throws IOException if the stream could not be written.
+     */
+    public RecordingDockerHttpClient(@NonNull DockerHttpClient delegate, @NonNull OutputStream recording)
+            throws IOException {
+        this.delegate = delegate;
+        this.writer = new DockerTrafficFile.Writer(recording);
+    }
+
+    @Override
+    public Response execute(Request request) {
+        final int id = nextId.getAndIncrement();
+        try {
+            writer.request(id, request.method(), request.path());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        final Response response;
+        try {
+            response = delegate.execute(request);
+        } catch (RuntimeException ex) {
+            try {
+                writer.failure(id, String.valueOf(ex));
+            } catch (IOException suppressed) {
+                ex.addSuppressed(suppressed);
+            }
+            throw ex;
+        }
+        try {
+            writer.response(id, response.getStatusCode(), response.getHeaders());
+        } catch (IOException ex) {
+            response.close();
+            throw new UncheckedIOException(ex);
+        }
+        return new RecordingResponse(id, response);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            delegate.close();
+        } finally {
+            writer.close();
+        }
+    }
+
+    private final class RecordingResponse implements Response {
+        private final int id;
+        private final Response response;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private RecordingInputStream body;
+
+        RecordingResponse(int id, Response response) {
+            this.id = id;
+            this.response = response;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public synchronized InputStream getBody() {
+            if (body == null) {
+                body = new RecordingInputStream(id, response.getBody());
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            try {
+                response.close();
+            } finally {
+                // docker-java can close a streamed response more than once
+                if (closed.compareAndSet(false, true)) {
+                    final RecordingInputStream recordedBody;
+                    synchronized (this) {
+                        recordedBody = body;
+                    }
+                    try {
+                        if (recordedBody != null) {
+                            recordedBody.flush();
+                        }
+                        writer.end(id);
+                    } catch (IOException ex) {
+                        LOGGER.log(Level.FINE, "Unable to record the end of exchange " + id, ex);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Records what is read, merging reads that arrive within
+     * {@link #BATCH_WINDOW_NANOS} of each other into one chunk of up to
+     * {@link #BATCH_SIZE} bytes so that byte-at-a-time readers do not bloat the
+     * recording. Each chunk is stamped with the arrival time of its first byte.
+     */
+    private final class RecordingInputStream extends FilterInputStream {
+        private final int id;
+        private final byte[] pending = new byte[BATCH_SIZE];
+        private int pendingLength;
+        private long pendingSince;
+
+        RecordingInputStream(int id, InputStream in) {
+            super(in);
+            this.id = id;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                record(new byte[] {(byte) b}, 0, 1);
+            } else {
+                flush();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int n = super.read(b, off, len);
+            if (n > 0) {
+                record(b, off, n);
+            } else if (n < 0) {
+                flush();
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // skipped bytes still need to be recorded
+            if (n <= 0) {
+                return 0;
+            }
+            final byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            final int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                flush();
+            }
+        }
+
+        private synchronized void record(byte[] b, int off, int len) throws IOException {
+            final long now = System.nanoTime();
+            if (pendingLength > 0 && now - pendingSince >= BATCH_WINDOW_NANOS) {
+                flush();
+            }
+            if (len >= BATCH_SIZE) {
+                flush();
+                writer.body(id, now, b, off, len);
+                return;
+            }
+            if (pendingLength + len > BATCH_SIZE) {
+                flush();
+            }
+            if (pendingLength == 0) {
+                pendingSince = now;
+            }
+            System.arraycopy(b, off, pending, pendingLength, len);
+            pendingLength += len;
+        }
+
+        synchronized void flush() throws IOException {
+            if (pendingLength > 0) {
+                writer.body(id, pendingSince, pending, 0, pendingLength);
+                pendingLength = 0;
+            }
+        }
+    }
+}
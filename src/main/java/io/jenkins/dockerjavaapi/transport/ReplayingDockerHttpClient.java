@@ -0,0 +1,248 @@
+package io.jenkins.dockerjavaapi.transport;
+
+import com.github.dockerjava.transport.DockerHttpClient;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DockerHttpClient} that answers requests from a recording made by a
+ * {@link RecordingDockerHttpClient}, without talking to a docker daemon.
+ * <p>
+ * Each request is answered by the first unused recorded exchange with the same
+ * method and path (or, failing that, the same method and path ignoring the
+ * query string). Responses, and each piece of their bodies, are delivered
+ * with the delays seen when they were recorded, divided by the given speed.
+ * A speed of {@link Double#POSITIVE_INFINITY} replays without any delays.
+ */
+public class ReplayingDockerHttpClient implements DockerHttpClient {
+
+    private final List<DockerTrafficFile.Exchange> unused;
+    private final double speed;
+
+    /**
+     * Constructs a new instance that replays the given recording.
+     *
+     * @param recording The recording to replay.
+     * @param speed     How much faster than recorded to replay; 1 replays at the
+     *                  recorded speed.
+     * @throws IOException if the recording could not be read.
+     */
+    public ReplayingDockerHttpClient(@NonNull Path recording, double speed) throws IOException {
+        this(open(recording, speed), speed);
+    }
+
+    /**
+     * Constructs a new instance that replays the recording read from the given
+     * stream. The stream is read fully and closed.
+     *
+     * @param recording The recording to replay.
+     * @param speed     How much faster than recorded to replay; 1 replays at the
+     *                  recorded speed.
+     * @throws IOException if the recording could not be read.
+     */
+    public ReplayingDockerHttpClient(@NonNull InputStream recording, double speed) throws IOException {
+        try (InputStream in = recording) {
+            checkSpeed(speed);
+            this.unused = new LinkedList<>(DockerTrafficFile.read(in));
+        }
+        this.speed = speed;
+    }
+
+    private static InputStream open(Path recording, double speed) throws IOException {
+        checkSpeed(speed);
+        return Files.newInputStream(recording);
+    }
+
+    private static void checkSpeed(double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("speed must be greater than zero, got " + speed);
+        }
+    }
+
+    @Override
+    public Response execute(Request request) {
+        final long startNanos = System.nanoTime();
+        final DockerTrafficFile.Exchange exchange = take(request.method(), request.path());
+        if (exchange == null) {
+            throw new IllegalStateException("No recorded response for " + request.method() + " " + request.path());
+        }
+        sleepUntil(startNanos, exchange.respondedAt - exchange.startedAt);
+        if (exchange.failure != null) {
+            throw new UncheckedIOException(new IOException("Recorded failure: " + exchange.failure));
+        }
+        return new ReplayedResponse(exchange, startNanos);
+    }
+
+    @Override
+    public void close() {}
+
+    private synchronized DockerTrafficFile.Exchange take(String method, String path) {
+        DockerTrafficFile.Exchange match = remove(method, path, false);
+        if (match == null) {
+            match = remove(method, path, true);
+        }
+        return match;
+    }
+
+    private DockerTrafficFile.Exchange remove(String method, String path, boolean ignoreQuery) {
+        final String wanted = ignoreQuery ? withoutQuery(path) : path;
+        for (Iterator<DockerTrafficFile.Exchange> it = unused.iterator(); it.hasNext(); ) {
+            final DockerTrafficFile.Exchange candidate = it.next();
+            final String candidatePath = ignoreQuery ? withoutQuery(candidate.path) : candidate.path;
+            if (candidate.method.equals(method) && candidatePath.equals(wanted)) {
+                it.remove();
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static String withoutQuery(String path) {
+        final int query = path.indexOf('?');
+        return query < 0 ? path : path.substring(0, query);
+    }
+
+    /**
+     * Waits until the (scaled) recorded delay has passed since the given start.
+     *
+     * @param startNanos    When the request was made, from {@link System#nanoTime()}.
+     * @param recordedDelay How long after the request the event happened when
+     *                      recorded, in nanoseconds.
+     */
+    private void sleepUntil(long startNanos, long recordedDelay) {
+        if (Double.isInfinite(speed)) {
+            return;
+        }
+        final long remaining = (long) (recordedDelay / speed) - (System.nanoTime() - startNanos);
+        if (remaining > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException());
+            }
+        }
+    }
+
+    private final class ReplayedResponse implements Response {
+        private final DockerTrafficFile.Exchange exchange;
+        private final InputStream body;
+
+        ReplayedResponse(DockerTrafficFile.Exchange exchange, long startNanos) {
+            this.exchange = exchange;
+            this.body = new ReplayedInputStream(exchange, startNanos);
+        }
+
+        @Override
+        public int getStatusCode() {
+            return exchange.statusCode;
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            return Collections.unmodifiableMap(exchange.responseHeaders);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() {
+            try {
+                body.close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Serves up the recorded body, making each chunk available only once its
+     * (scaled) recorded arrival time has passed.
+     */
+    private final class ReplayedInputStream extends InputStream {
+        private final long startNanos;
+        private final long startedAt;
+        private final Deque<DockerTrafficFile.Chunk> chunks;
+        private byte[] current = new byte[0];
+        private int position;
+        private boolean closed;
+
+        ReplayedInputStream(DockerTrafficFile.Exchange exchange, long startNanos) {
+            this.startNanos = startNanos;
+            this.startedAt = exchange.startedAt;
+            this.chunks = new ArrayDeque<>(exchange.body);
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return current[position++] & 0xff;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            final int n = Math.min(len, current.length - position);
+            System.arraycopy(current, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public synchronized int available() {
+            return current.length - position;
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            chunks.clear();
+        }
+
+        /**
+         * @return true if there is data to be read, false at end of stream.
+         */
+        private boolean fill() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            while (position >= current.length) {
+                final DockerTrafficFile.Chunk next = chunks.poll();
+                if (next == null) {
+                    return false;
+                }
+                try {
+                    sleepUntil(startNanos, next.arrivedAt - startedAt);
+                } catch (UncheckedIOException ex) {
+                    throw ex.getCause();
+                }
+                current = next.data;
+                position = 0;
+            }
+            return true;
+        }
+    }
+}
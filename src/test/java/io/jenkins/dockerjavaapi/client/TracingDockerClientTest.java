@@ -0,0 +1,213 @@
+package io.jenkins.dockerjavaapi.client;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.InspectContainerCmd;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.command.LogContainerCmd;
+import com.github.dockerjava.api.command.PullImageCmd;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.PullResponseItem;
+import com.github.dockerjava.api.model.StreamType;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link TracingDockerClient} records a {@link DockerCommandSpan}
+ * for each command executed, and stays out of the way when disabled.
+ */
+class TracingDockerClientTest {
+
+    private final DockerClient mockDelegate = mock(DockerClient.class, "mockDelegate");
+
+    @Test
+    void disabledTracerLeavesCommandsUnwrapped() {
+        // Given
+        final DockerCommandTracer tracer = new DockerCommandTracer(false, 10, 10, 0L);
+        final InspectContainerCmd cmd = mock(InspectContainerCmd.class);
+        when(mockDelegate.inspectContainerCmd("c1")).thenReturn(cmd);
+        final TracingDockerClient instanceUnderTest = new TracingDockerClient(mockDelegate, "daemon", tracer);
+
+        // When
+        final InspectContainerCmd actual = instanceUnderTest.inspectContainerCmd("c1");
+
+        // Then
+        assertThat(actual, sameInstance(cmd));
+        assertThat(tracer.getRecentSpans().isEmpty(), is(true));
+    }
+
+    @Test
+    void syncCommandIsRecorded() {
+        // Given
+        final DockerCommandTracer tracer = new DockerCommandTracer(true, 10, 10, Long.MAX_VALUE);
+        final InspectContainerCmd cmd = mock(InspectContainerCmd.class);
+        final InspectContainerResponse response = mock(InspectContainerResponse.class);
+        when(cmd.withSize(true)).thenReturn(cmd);
+        when(cmd.getContainerId()).thenReturn("c1");
+        when(cmd.exec()).thenReturn(response);
+        when(mockDelegate.inspectContainerCmd("c1")).thenReturn(cmd);
+        final TracingDockerClient instanceUnderTest = new TracingDockerClient(mockDelegate, "daemon", tracer);
+
+        // When
+        final InspectContainerCmd traced = instanceUnderTest.inspectContainerCmd("c1");
+        final InspectContainerCmd fluent = traced.withSize(true);
+        final InspectContainerResponse actual = fluent.exec();
+
+        // Then
+        assertThat(traced, not(sameInstance(cmd)));
+        assertThat("fluent calls keep tracing", fluent, sameInstance(traced));
+        assertThat(actual, sameInstance(response));
+        final List<DockerCommandSpan> spans = tracer.getRecentSpans();
+        assertThat(spans.size(), is(1));
+        final DockerCommandSpan span = spans.get(0);
+        assertThat(span.getCommand(), equalTo("InspectContainerCmd"));
+        assertThat(span.getDaemon(), equalTo("daemon"));
+        assertThat(span.getTarget(), equalTo("c1"));
+        assertThat(span.getBytes(), is(-1L));
+        assertThat(span.getError(), nullValue());
+        assertThat(tracer.getSlowSpans().isEmpty(), is(true));
+    }
+
+    @Test
+    void failedCommandIsRecordedAsSlow() {
+        // Given
+        final DockerCommandTracer tracer = new DockerCommandTracer(true, 10, 10, 0L);
+        final InspectContainerCmd cmd = mock(InspectContainerCmd.class);
+        final NotFoundException failure = new NotFoundException("No such container");
+        when(cmd.exec()).thenThrow(failure);
+        when(mockDelegate.inspectContainerCmd("c1")).thenReturn(cmd);
+        final TracingDockerClient instanceUnderTest = new TracingDockerClient(mockDelegate, "daemon", tracer);
+
+        // When
+        final NotFoundException actual = assertThrows(
+                NotFoundException.class,
+                () -> instanceUnderTest.inspectContainerCmd("c1").exec());
+
+        // Then
+        assertThat(actual, sameInstance(failure));
+        assertThat(tracer.getRecentSpans().get(0).getError(), notNullValue());
+        assertThat(tracer.getSlowSpans().size(), is(1));
+    }
+
+    @Test
+    void asyncCommandCountsStreamedBytes() throws Exception {
+        // Given
+        final DockerCommandTracer tracer = new DockerCommandTracer(true, 10, 10, Long.MAX_VALUE);
+        final LogContainerCmd cmd = mock(LogContainerCmd.class);
+        when(cmd.getContainerId()).thenReturn("c1");
+        when(cmd.exec(any())).thenAnswer(invocation -> {
+            final ResultCallback<Frame> callback = invocation.getArgument(0);
+            callback.onNext(new Frame(StreamType.STDOUT, new byte[] {'a', 'b', 'c'}));
+            callback.onNext(new Frame(StreamType.STDERR, new byte[] {'d', 'e'}));
+            callback.onComplete();
+            return callback;
+        });
+        when(mockDelegate.logContainerCmd("c1")).thenReturn(cmd);
+        final TracingDockerClient instanceUnderTest = new TracingDockerClient(mockDelegate, "daemon", tracer);
+        final ResultCallback.Adapter<Frame> callback = new ResultCallback.Adapter<>();
+
+        // When
+        final ResultCallback.Adapter<Frame> actual =
+                instanceUnderTest.logContainerCmd("c1").exec(callback);
+
+        // Then
+        assertThat(actual, sameInstance(callback));
+        actual.awaitCompletion();
+        final DockerCommandSpan span = tracer.getRecentSpans().get(0);
+        assertThat(span.getCommand(), equalTo("LogContainerCmd"));
+        assertThat(span.getTarget(), equalTo("c1"));
+        assertThat(span.getBytes(), is(5L));
+    }
+
+    @Test
+    void asyncCommandStartedWithStartIsRecorded() throws Exception {
+        // Given
+        final DockerCommandTracer tracer = new DockerCommandTracer(true, 10, 10, Long.MAX_VALUE);
+        final PullImageCmd cmd = mock(PullImageCmd.class);
+        when(cmd.exec(any())).thenAnswer(invocation -> {
+            final ResultCallback<PullResponseItem> callback = invocation.getArgument(0);
+            callback.onComplete();
+            return callback;
+        });
+        when(mockDelegate.pullImageCmd("jenkins/agent")).thenReturn(cmd);
+        final TracingDockerClient instanceUnderTest = new TracingDockerClient(mockDelegate, "daemon", tracer);
+
+        // When
+        instanceUnderTest.pullImageCmd("jenkins/agent").start().awaitCompletion();
+
+        // Then
+        final List<DockerCommandSpan> spans = tracer.getRecentSpans();
+        assertThat(spans.size(), is(1));
+        assertThat(spans.get(0).getCommand(), equalTo("PullImageCmd"));
+        assertThat(spans.get(0).getBytes(), is(-1L));
+        assertThat(spans.get(0).getError(), nullValue());
+    }
+
+    @Test
+    void streamClosedByCallerIsNotRecordedAsFailed() throws Exception {
+        // Given
+        final DockerCommandTracer tracer = new DockerCommandTracer(true, 10, 10, 0L);
+        final LogContainerCmd cmd = mock(LogContainerCmd.class);
+        final Closeable stream = mock(Closeable.class);
+        final AtomicReference<ResultCallback<Frame>> streaming = new AtomicReference<>();
+        when(cmd.exec(any())).thenAnswer(invocation -> {
+            final ResultCallback<Frame> callback = invocation.getArgument(0);
+            streaming.set(callback);
+            callback.onStart(stream);
+            callback.onNext(new Frame(StreamType.STDOUT, new byte[] {'a', 'b', 'c'}));
+            return callback;
+        });
+        when(mockDelegate.logContainerCmd("c1")).thenReturn(cmd);
+        final TracingDockerClient instanceUnderTest = new TracingDockerClient(mockDelegate, "daemon", tracer);
+        final ResultCallback.Adapter<Frame> callback =
+                instanceUnderTest.logContainerCmd("c1").exec(new ResultCallback.Adapter<>());
+
+        // When
+        callback.close();
+        streaming.get().onError(new IOException("Socket closed"));
+
+        // Then
+        verify(stream).close();
+        final List<DockerCommandSpan> spans = tracer.getRecentSpans();
+        assertThat(spans.size(), is(1));
+        final DockerCommandSpan span = spans.get(0);
+        assertThat(span.isClosed(), is(true));
+        assertThat(span.isFailed(), is(false));
+        assertThat(span.getBytes(), is(3L));
+        assertThat(tracer.getSlowSpans().isEmpty(), is(true));
+    }
+
+    @Test
+    void oldestSpansAreDiscarded() {
+        // Given
+        final DockerCommandTracer tracer = new DockerCommandTracer(true, 2, 2, Long.MAX_VALUE);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            tracer.record(new DockerCommandSpan("Cmd" + i, "daemon", null, 0L, 0L, -1L, null, false));
+        }
+
+        // Then
+        final List<DockerCommandSpan> spans = tracer.getRecentSpans();
+        assertThat(spans.size(), is(2));
+        assertThat(spans.get(0).getCommand(), equalTo("Cmd2"));
+        assertThat(spans.get(1).getCommand(), equalTo("Cmd1"));
+    }
+}
@@ -0,0 +1,243 @@
+package io.jenkins.dockerjavaapi.json;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Image;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientConfig;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares docker-java's default decoding of typical daemon responses with
+ * decoding through a {@link SelectiveDecodingModule} that keeps only the
+ * fields a provisioning plugin usually needs.
+ * <p>
+ * Run via {@link SelectiveDecodingBenchmarkRunner}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectiveDecodingBenchmark {
+    private static final TypeReference<List<Container>> CONTAINERS = new TypeReference<>() {};
+    private static final TypeReference<List<Image>> IMAGES = new TypeReference<>() {};
+
+    /** Number of containers and images listed; a small agent host and a busy one. */
+    @Param({"20", "500"})
+    public int count;
+
+    private ObjectMapper defaultMapper;
+    private ObjectMapper selectiveMapper;
+    private byte[] containers;
+    private byte[] images;
+    private byte[] inspect;
+
+    @Setup
+    public void setUp() {
+        final DockerClientConfig config =
+                DefaultDockerClientConfig.createDefaultConfigBuilder().build();
+        defaultMapper = config.getObjectMapper();
+        selectiveMapper = ObjectMapperModules.withModules(
+                        config,
+                        new SelectiveDecodingModule()
+                                .decode(Container.class, "Id", "Names", "Labels", "State")
+                                .decode(Image.class, "Id", "RepoTags", "Labels")
+                                .decode(InspectContainerResponse.class, "Id", "Name", "State"))
+                .getObjectMapper();
+        containers = containersJson(count).getBytes(StandardCharsets.UTF_8);
+        images = imagesJson(count).getBytes(StandardCharsets.UTF_8);
+        inspect = inspectJson().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<Container> listContainersDefault() throws IOException {
+        return defaultMapper.readValue(containers, CONTAINERS);
+    }
+
+    @Benchmark
+    public List<Container> listContainersSelective() throws IOException {
+        return selectiveMapper.readValue(containers, CONTAINERS);
+    }
+
+    @Benchmark
+    public List<Image> listImagesDefault() throws IOException {
+        return defaultMapper.readValue(images, IMAGES);
+    }
+
+    @Benchmark
+    public List<Image> listImagesSelective() throws IOException {
+        return selectiveMapper.readValue(images, IMAGES);
+    }
+
+    @Benchmark
+    public InspectContainerResponse inspectContainerDefault() throws IOException {
+        return defaultMapper.readValue(inspect, InspectContainerResponse.class);
+    }
+
+    @Benchmark
+    public InspectContainerResponse inspectContainerSelective() throws IOException {
+        return selectiveMapper.readValue(inspect, InspectContainerResponse.class);
+    }
+
+    private static String id(String prefix, int i) {
+        final String hex = Integer.toHexString(prefix.hashCode() * 31 + i);
+        return (hex + "0123456789abcdef".repeat(4)).substring(0, 64);
+    }
+
+    private static String labels(int i) {
+        final StringBuilder sb = new StringBuilder("{");
+        for (int l = 0; l < 10; l++) {
+            if (l > 0) {
+                sb.append(',');
+            }
+            sb.append("\"org.opencontainers.image.label").append(l).append("\":");
+            sb.append("\"value-").append(i).append('-').append(l).append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String networkSettings(int i) {
+        return "{\"Networks\":{\"bridge\":{\"IPAMConfig\":null,\"Links\":null,\"Aliases\":null,"
+                + "\"NetworkID\":\"" + id("network", 0) + "\",\"EndpointID\":\"" + id("endpoint", i) + "\","
+                + "\"Gateway\":\"172.17.0.1\",\"IPAddress\":\"172.17." + (i / 250) + "." + (i % 250 + 2) + "\","
+                + "\"IPPrefixLen\":16,\"IPv6Gateway\":\"\",\"GlobalIPv6Address\":\"\",\"GlobalIPv6PrefixLen\":0,"
+                + "\"MacAddress\":\"02:42:ac:11:00:02\"}}}";
+    }
+
+    private static String mounts(int i) {
+        return "[{\"Type\":\"volume\",\"Name\":\"" + id("volume", i) + "\",\"Source\":\"/var/lib/docker/volumes/"
+                + id("volume", i) + "/_data\",\"Destination\":\"/home/jenkins/agent\",\"Driver\":\"local\","
+                + "\"Mode\":\"\",\"RW\":true,\"Propagation\":\"\"},"
+                + "{\"Type\":\"bind\",\"Source\":\"/var/run/docker.sock\",\"Destination\":\"/var/run/docker.sock\","
+                + "\"Mode\":\"\",\"RW\":true,\"Propagation\":\"rprivate\"}]";
+    }
+
+    private static String containersJson(int count) {
+        final StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"Id\":\"")
+                    .append(id("container", i))
+                    .append("\",")
+                    .append("\"Names\":[\"/agent-")
+                    .append(i)
+                    .append("\"],")
+                    .append("\"Image\":\"jenkins/inbound-agent:latest\",")
+                    .append("\"ImageID\":\"sha256:")
+                    .append(id("image", 0))
+                    .append("\",")
+                    .append("\"Command\":\"/usr/local/bin/jenkins-agent\",")
+                    .append("\"Created\":")
+                    .append(1700000000L + i)
+                    .append(',')
+                    .append("\"Ports\":[{\"IP\":\"0.0.0.0\",\"PrivatePort\":22,\"PublicPort\":")
+                    .append(32768 + i)
+                    .append(",\"Type\":\"tcp\"}],")
+                    .append("\"Labels\":")
+                    .append(labels(i))
+                    .append(',')
+                    .append("\"State\":\"running\",\"Status\":\"Up 2 hours\",")
+                    .append("\"HostConfig\":{\"NetworkMode\":\"bridge\"},")
+                    .append("\"NetworkSettings\":")
+                    .append(networkSettings(i))
+                    .append(',')
+                    .append("\"Mounts\":")
+                    .append(mounts(i))
+                    .append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String imagesJson(int count) {
+        final StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"Id\":\"sha256:")
+                    .append(id("image", i))
+                    .append("\",")
+                    .append("\"ParentId\":\"\",")
+                    .append("\"RepoTags\":[\"jenkins/agent:")
+                    .append(i)
+                    .append("\",\"jenkins/agent:latest-jdk17\"],")
+                    .append("\"RepoDigests\":[\"jenkins/agent@sha256:")
+                    .append(id("digest", i))
+                    .append("\"],")
+                    .append("\"Created\":")
+                    .append(1700000000L + i)
+                    .append(',')
+                    .append("\"Size\":")
+                    .append(400000000L + i)
+                    .append(',')
+                    .append("\"VirtualSize\":")
+                    .append(400000000L + i)
+                    .append(',')
+                    .append("\"SharedSize\":-1,")
+                    .append("\"Labels\":")
+                    .append(labels(i))
+                    .append(',')
+                    .append("\"Containers\":-1}");
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String inspectJson() {
+        final StringBuilder env = new StringBuilder("[");
+        for (int e = 0; e < 30; e++) {
+            if (e > 0) {
+                env.append(',');
+            }
+            env.append("\"AGENT_SETTING_")
+                    .append(e)
+                    .append("=some-configuration-value-")
+                    .append(e)
+                    .append('"');
+        }
+        env.append(']');
+        return "{\"Id\":\"" + id("container", 0) + "\","
+                + "\"Created\":\"2024-01-01T00:00:00.000000000Z\","
+                + "\"Path\":\"/usr/local/bin/jenkins-agent\",\"Args\":[\"-url\",\"http://jenkins:8080/\"],"
+                + "\"State\":{\"Status\":\"running\",\"Running\":true,\"Paused\":false,\"Restarting\":false,"
+                + "\"OOMKilled\":false,\"Dead\":false,\"Pid\":4242,\"ExitCode\":0,\"Error\":\"\","
+                + "\"StartedAt\":\"2024-01-01T00:00:01.000000000Z\",\"FinishedAt\":\"0001-01-01T00:00:00Z\"},"
+                + "\"Image\":\"sha256:" + id("image", 0) + "\","
+                + "\"ResolvConfPath\":\"/var/lib/docker/containers/" + id("container", 0) + "/resolv.conf\","
+                + "\"HostnamePath\":\"/var/lib/docker/containers/" + id("container", 0) + "/hostname\","
+                + "\"HostsPath\":\"/var/lib/docker/containers/" + id("container", 0) + "/hosts\","
+                + "\"LogPath\":\"/var/lib/docker/containers/" + id("container", 0) + "/json.log\","
+                + "\"Name\":\"/agent-0\",\"RestartCount\":0,\"Driver\":\"overlay2\",\"Platform\":\"linux\","
+                + "\"MountLabel\":\"\",\"ProcessLabel\":\"\",\"AppArmorProfile\":\"docker-default\","
+                + "\"HostConfig\":{\"Binds\":[\"/var/run/docker.sock:/var/run/docker.sock\"],"
+                + "\"NetworkMode\":\"bridge\",\"Memory\":0,\"CpuShares\":0,\"Privileged\":false,"
+                + "\"RestartPolicy\":{\"Name\":\"no\",\"MaximumRetryCount\":0},\"AutoRemove\":false},"
+                + "\"Mounts\":" + mounts(0) + ","
+                + "\"Config\":{\"Hostname\":\"" + id("container", 0).substring(0, 12) + "\",\"Domainname\":\"\","
+                + "\"User\":\"jenkins\",\"AttachStdin\":false,\"AttachStdout\":false,\"AttachStderr\":false,"
+                + "\"Tty\":false,\"OpenStdin\":false,\"StdinOnce\":false,\"Env\":" + env + ","
+                + "\"Cmd\":[\"-url\",\"http://jenkins:8080/\"],\"Image\":\"jenkins/inbound-agent:latest\","
+                + "\"WorkingDir\":\"/home/jenkins\",\"Entrypoint\":[\"/usr/local/bin/jenkins-agent\"],"
+                + "\"Labels\":" + labels(0) + "},"
+                + "\"NetworkSettings\":" + networkSettings(0) + "}";
+    }
+}
@@ -0,0 +1,23 @@
+package io.jenkins.dockerjavaapi.json;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs {@link SelectiveDecodingBenchmark}. Skipped unless the
+ * <code>benchmark</code> system property is <code>true</code>, e.g.
+ * <code>mvn test -Dtest=SelectiveDecodingBenchmarkRunner -Dbenchmark=true</code>.
+ */
+class SelectiveDecodingBenchmarkRunner {
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void runBenchmarks() throws Exception {
+        new Runner(new OptionsBuilder()
+                        .include(SelectiveDecodingBenchmark.class.getName())
+                        .build())
+                .run();
+    }
+}
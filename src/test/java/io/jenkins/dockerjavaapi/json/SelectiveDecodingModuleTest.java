@@ -0,0 +1,144 @@
+package io.jenkins.dockerjavaapi.json;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Image;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientConfig;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link SelectiveDecodingModule}, installed via
+ * {@link ObjectMapperModules}, decodes only the requested properties.
+ */
+class SelectiveDecodingModuleTest {
+
+    private static final String CONTAINERS = "[{"
+            + "\"Id\":\"c1\","
+            + "\"Names\":[\"/agent-1\"],"
+            + "\"Image\":\"jenkins/agent\","
+            + "\"Labels\":{\"role\":\"agent\"},"
+            + "\"State\":\"running\","
+            + "\"NetworkSettings\":{\"Networks\":{\"bridge\":{\"IPAddress\":\"172.17.0.2\"}}},"
+            + "\"Mounts\":[{\"Type\":\"volume\",\"Destination\":\"/home/jenkins\"}]"
+            + "}]";
+
+    @Test
+    void onlyRequestedPropertiesAreDecoded() throws Exception {
+        // Given
+        final DockerClientConfig original =
+                DefaultDockerClientConfig.createDefaultConfigBuilder().build();
+        final DockerClientConfig config = ObjectMapperModules.withModules(
+                original, new SelectiveDecodingModule().decode(Container.class, "Id", "Labels", "State"));
+        final ObjectMapper mapper = config.getObjectMapper();
+
+        // When
+        final List<Container> actual = mapper.readValue(CONTAINERS, new TypeReference<List<Container>>() {});
+
+        // Then
+        final Container container = actual.get(0);
+        assertThat(container.getId(), equalTo("c1"));
+        assertThat(container.getLabels(), equalTo(Map.of("role", "agent")));
+        assertThat(container.getState(), equalTo("running"));
+        assertThat(container.getImage(), nullValue());
+        assertThat(container.getNames(), nullValue());
+        assertThat(container.getNetworkSettings(), nullValue());
+        assertThat("mapper is reused", config.getObjectMapper(), sameInstance(mapper));
+        assertThat(config.getDockerHost(), equalTo(original.getDockerHost()));
+    }
+
+    @Test
+    void innerClassesOfSelectedClassesAreDecoded() throws Exception {
+        // Given
+        final DockerClientConfig config = ObjectMapperModules.withModules(
+                DefaultDockerClientConfig.createDefaultConfigBuilder().build(),
+                new SelectiveDecodingModule().decode(InspectContainerResponse.class, "Id", "State"));
+
+        // When
+        final InspectContainerResponse actual = config.getObjectMapper()
+                .readValue(
+                        "{\"Id\":\"c1\",\"Image\":\"sha256:1\",\"State\":{\"Status\":\"running\",\"Pid\":42}}",
+                        InspectContainerResponse.class);
+
+        // Then
+        assertThat(actual.getId(), equalTo("c1"));
+        assertThat(actual.getImageId(), nullValue());
+        assertThat(actual.getState().getStatus(), equalTo("running"));
+        assertThat(actual.getState().getPidLong(), equalTo(42L));
+    }
+
+    @Test
+    void otherClassesAreDecodedNormally() throws Exception {
+        // Given
+        final DockerClientConfig config = ObjectMapperModules.withModules(
+                DefaultDockerClientConfig.createDefaultConfigBuilder().build(), new SelectiveDecodingModule());
+
+        // When
+        final List<Container> actual =
+                config.getObjectMapper().readValue(CONTAINERS, new TypeReference<List<Container>>() {});
+
+        // Then
+        final Container container = actual.get(0);
+        assertThat(container.getImage(), equalTo("jenkins/agent"));
+        assertThat(container.getNames()[0], equalTo("/agent-1"));
+    }
+
+    @Test
+    void unwantedPropertiesAreIgnoredEvenIfUnknownPropertiesFail() throws Exception {
+        // Given
+        final ObjectMapper mapper = new ObjectMapper()
+                .enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .registerModule(new SelectiveDecodingModule().decode(Container.class, "Id", "Id", null));
+
+        // When
+        final Container actual = mapper.readValue(
+                "{\"Id\":\"c1\",\"Image\":\"jenkins/agent\",\"Labels\":{\"role\":\"agent\"}}", Container.class);
+
+        // Then
+        assertThat(actual.getId(), equalTo("c1"));
+        assertThat(actual.getImage(), nullValue());
+        assertThat(actual.getLabels(), nullValue());
+    }
+
+    @Test
+    void severalModulesCanBeRegistered() throws Exception {
+        // Given
+        final SelectiveDecodingModule containers = new SelectiveDecodingModule().decode(Container.class, "Id");
+        final SelectiveDecodingModule images = new SelectiveDecodingModule().decode(Image.class, "Id");
+        final DockerClientConfig config = ObjectMapperModules.withModules(
+                DefaultDockerClientConfig.createDefaultConfigBuilder().build(), containers, images);
+        final ObjectMapper mapper = config.getObjectMapper();
+
+        // When
+        final Container container = mapper.readValue("{\"Id\":\"c1\",\"Image\":\"jenkins/agent\"}", Container.class);
+        final Image image = mapper.readValue("{\"Id\":\"sha256:1\",\"ParentId\":\"sha256:0\"}", Image.class);
+
+        // Then
+        assertThat(container.getId(), equalTo("c1"));
+        assertThat(container.getImage(), nullValue());
+        assertThat(image.getId(), equalTo("sha256:1"));
+        assertThat(image.getParentId(), nullValue());
+        assertThrows(IllegalStateException.class, () -> images.decode(Image.class, "Labels"));
+    }
+
+    @Test
+    void decodeAfterRegistrationIsRejected() {
+        // Given
+        final SelectiveDecodingModule module = new SelectiveDecodingModule();
+        new ObjectMapper().registerModule(module);
+
+        // When/Then
+        assertThrows(IllegalStateException.class, () -> module.decode(Container.class, "Id"));
+    }
+}
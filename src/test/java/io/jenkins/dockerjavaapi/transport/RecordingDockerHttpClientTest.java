@@ -0,0 +1,289 @@
+package io.jenkins.dockerjavaapi.transport;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.github.dockerjava.transport.DockerHttpClient;
+import com.github.dockerjava.transport.DockerHttpClient.Request;
+import com.github.dockerjava.transport.DockerHttpClient.Response;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Records traffic with {@link RecordingDockerHttpClient} and checks that
+ * {@link ReplayingDockerHttpClient} plays it back faithfully.
+ */
+class RecordingDockerHttpClientTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final DockerHttpClient mockDelegate = mock(DockerHttpClient.class, "mockDelegate");
+
+    @Test
+    void recordedTrafficIsReplayed() throws Exception {
+        // Given
+        final Path recording = tempDir.resolve("traffic.bin");
+        final Request list = request("/containers/json?all=1");
+        final Request inspect = request("/containers/c1/json");
+        final Response listResponse = response(200, "[{\"Id\":\"c1\"}]");
+        final Response inspectResponse = response(404, "{\"message\":\"No such container\"}");
+        when(mockDelegate.execute(list)).thenReturn(listResponse);
+        when(mockDelegate.execute(inspect)).thenReturn(inspectResponse);
+        try (DockerHttpClient recorder = new RecordingDockerHttpClient(mockDelegate, recording)) {
+            readFully(recorder, list);
+            readFully(recorder, inspect);
+        }
+
+        // When
+        final DockerHttpClient instanceUnderTest = new ReplayingDockerHttpClient(recording, Double.POSITIVE_INFINITY);
+
+        // Then
+        try (Response actual = instanceUnderTest.execute(inspect)) {
+            assertThat(actual.getStatusCode(), is(404));
+            assertThat(actual.getHeader("Content-Type"), equalTo("application/json"));
+            assertThat(body(actual), equalTo("{\"message\":\"No such container\"}"));
+        }
+        try (Response actual = instanceUnderTest.execute(request("/containers/json?all=1&size=1"))) {
+            assertThat("falls back to ignoring the query", actual.getStatusCode(), is(200));
+            assertThat(body(actual), equalTo("[{\"Id\":\"c1\"}]"));
+        }
+        assertThrows(IllegalStateException.class, () -> instanceUnderTest.execute(list));
+    }
+
+    @Test
+    void failuresAreReplayed() throws Exception {
+        // Given
+        final Path recording = tempDir.resolve("traffic.bin");
+        final Request ping = request("/_ping");
+        when(mockDelegate.execute(ping)).thenThrow(new UncheckedIOException(new IOException("Connection refused")));
+        try (DockerHttpClient recorder = new RecordingDockerHttpClient(mockDelegate, recording)) {
+            assertThrows(UncheckedIOException.class, () -> recorder.execute(ping));
+        }
+
+        // When
+        final DockerHttpClient instanceUnderTest = new ReplayingDockerHttpClient(recording, 1);
+
+        // Then
+        assertThrows(UncheckedIOException.class, () -> instanceUnderTest.execute(ping));
+    }
+
+    @Test
+    void responseClosedTwiceCanBeReplayed() throws Exception {
+        // Given
+        final Path recording = tempDir.resolve("traffic.bin");
+        final Request logs = request("/containers/c1/logs");
+        final Request ping = request("/_ping");
+        final Response logsResponse = response(200, "hello");
+        final Response pingResponse = response(200, "OK");
+        when(mockDelegate.execute(logs)).thenReturn(logsResponse);
+        when(mockDelegate.execute(ping)).thenReturn(pingResponse);
+        try (DockerHttpClient recorder = new RecordingDockerHttpClient(mockDelegate, recording)) {
+            final Response response = recorder.execute(logs);
+            body(response);
+            response.close();
+            response.close();
+            readFully(recorder, ping);
+        }
+
+        // When
+        final DockerHttpClient instanceUnderTest = new ReplayingDockerHttpClient(recording, Double.POSITIVE_INFINITY);
+
+        // Then
+        try (Response actual = instanceUnderTest.execute(logs)) {
+            assertThat(body(actual), equalTo("hello"));
+        }
+        try (Response actual = instanceUnderTest.execute(ping)) {
+            assertThat(body(actual), equalTo("OK"));
+        }
+    }
+
+    @Test
+    void closingAfterTheRecorderIsClosedIsQuiet() throws Exception {
+        // Given
+        final Path recording = tempDir.resolve("traffic.bin");
+        final Request logs = request("/containers/c1/logs");
+        final Response logsResponse = response(200, "hello");
+        when(mockDelegate.execute(logs)).thenReturn(logsResponse);
+        final DockerHttpClient recorder = new RecordingDockerHttpClient(mockDelegate, recording);
+        final Response response = recorder.execute(logs);
+        body(response);
+        recorder.close();
+
+        // When
+        response.close();
+
+        // Then
+        final DockerHttpClient instanceUnderTest = new ReplayingDockerHttpClient(recording, Double.POSITIVE_INFINITY);
+        try (Response actual = instanceUnderTest.execute(logs)) {
+            assertThat(actual.getStatusCode(), is(200));
+        }
+    }
+
+    @Test
+    void registryCredentialsAreNotRecorded() throws Exception {
+        // Given
+        final Path recording = tempDir.resolve("traffic.bin");
+        final Request auth = Request.builder()
+                .method(Request.Method.POST)
+                .path("/auth")
+                .headers(Map.of("X-Registry-Auth", "eyJwYXNzd29yZCI6InMzY3IzdCJ9"))
+                .bodyBytes("{\"username\":\"jenkins\",\"password\":\"s3cr3t\"}".getBytes(StandardCharsets.UTF_8))
+                .build();
+        final Response authResponse = response(200, "{\"Status\":\"Login Succeeded\"}");
+        when(mockDelegate.execute(auth)).thenReturn(authResponse);
+
+        // When
+        try (DockerHttpClient recorder = new RecordingDockerHttpClient(mockDelegate, recording)) {
+            readFully(recorder, auth);
+        }
+
+        // Then
+        final String recorded = new String(Files.readAllBytes(recording), StandardCharsets.ISO_8859_1);
+        assertThat(recorded, not(containsString("eyJwYXNzd29yZCI6InMzY3IzdCJ9")));
+        assertThat(recorded, not(containsString("s3cr3t")));
+        try (Response actual = new ReplayingDockerHttpClient(recording, Double.POSITIVE_INFINITY).execute(auth)) {
+            assertThat(body(actual), equalTo("{\"Status\":\"Login Succeeded\"}"));
+        }
+    }
+
+    @Test
+    void invalidSpeedIsRejectedBeforeTheRecordingIsOpened() {
+        // Given
+        final Path missing = tempDir.resolve("missing.bin");
+
+        // When/Then
+        assertThrows(IllegalArgumentException.class, () -> new ReplayingDockerHttpClient(missing, 0));
+    }
+
+    @Test
+    void streamedChunksAreReplayedInOrderWithScaledDelays() throws Exception {
+        // Given
+        final Path recording = tempDir.resolve("traffic.bin");
+        final Request logs = request("/containers/c1/logs?follow=1");
+        final Response response = response(200, "");
+        when(response.getBody()).thenReturn(new SlowChunkedInputStream("a", "b", "c"));
+        when(mockDelegate.execute(logs)).thenReturn(response);
+        try (DockerHttpClient recorder = new RecordingDockerHttpClient(mockDelegate, recording)) {
+            readChunks(recorder, logs, new ArrayList<>());
+        }
+
+        // When
+        final List<Long> arrivals = new ArrayList<>();
+        final List<String> chunks = readChunks(new ReplayingDockerHttpClient(recording, 2), logs, arrivals);
+        final long fastStart = System.nanoTime();
+        final List<String> fastChunks = readChunks(new ReplayingDockerHttpClient(recording, 1000), logs, null);
+        final long fastMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - fastStart);
+
+        // Then
+        assertThat(chunks, equalTo(List.of("a", "b", "c")));
+        for (int i = 1; i < arrivals.size(); i++) {
+            // recorded 200ms apart, so 100ms apart at double speed
+            final long gapMillis = TimeUnit.NANOSECONDS.toMillis(arrivals.get(i) - arrivals.get(i - 1));
+            assertThat("gap before chunk " + i, gapMillis, greaterThanOrEqualTo(50L));
+        }
+        assertThat(fastChunks, equalTo(List.of("a", "b", "c")));
+        assertThat("accelerated replay is quicker than one recorded gap", fastMillis, lessThan(200L));
+    }
+
+    /**
+     * Returns each chunk from a separate read, 200ms after the previous one.
+     */
+    private static final class SlowChunkedInputStream extends InputStream {
+        private final Deque<String> chunks;
+
+        SlowChunkedInputStream(String... chunks) {
+            this.chunks = new ArrayDeque<>(List.of(chunks));
+        }
+
+        @Override
+        public int read() throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final String chunk = chunks.poll();
+            if (chunk == null) {
+                return -1;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(200);
+            } catch (InterruptedException ex) {
+                throw new IOException(ex);
+            }
+            final byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(bytes, 0, b, off, bytes.length);
+            return bytes.length;
+        }
+    }
+
+    /**
+     * Reads a response body one read at a time.
+     *
+     * @return what each read returned.
+     */
+    private static List<String> readChunks(DockerHttpClient client, Request request, List<Long> arrivals)
+            throws IOException {
+        final List<String> chunks = new ArrayList<>();
+        final byte[] buffer = new byte[1024];
+        try (Response response = client.execute(request)) {
+            final InputStream body = response.getBody();
+            int n;
+            while ((n = body.read(buffer, 0, buffer.length)) >= 0) {
+                if (arrivals != null) {
+                    arrivals.add(System.nanoTime());
+                }
+                chunks.add(new String(buffer, 0, n, StandardCharsets.UTF_8));
+            }
+        }
+        return chunks;
+    }
+
+    private static Request request(String path) {
+        return Request.builder()
+                .method(Request.Method.GET)
+                .path(path)
+                .headers(Map.of("Accept", "application/json"))
+                .build();
+    }
+
+    private static Response response(int statusCode, String body) {
+        final Response response = mock(Response.class);
+        when(response.getStatusCode()).thenReturn(statusCode);
+        when(response.getHeaders()).thenReturn(Map.of("Content-Type", List.of("application/json")));
+        when(response.getBody()).thenReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        return response;
+    }
+
+    private static void readFully(DockerHttpClient client, Request request) throws IOException {
+        try (Response response = client.execute(request)) {
+            body(response);
+        }
+    }
+
+    private static String body(Response response) throws IOException {
+        return new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+}